@@ -0,0 +1,514 @@
+package adowrath.fx.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+
+import adowrath.fx.controller.BasicController;
+import adowrath.fx.model.EmptyModel;
+import adowrath.fx.model.Model;
+import adowrath.fx.model.localization.Translator;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Menu;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * A load harness measuring how locale switches affect the frame time
+ * of a large scene graph.
+ * <br>
+ * It builds {@code --controllers} synthetic FXML views, each with a
+ * menu bar of {@code --menuDepth} nested menus, a table with
+ * {@code --columns} columns and its share of {@code --nodes}
+ * translatable labels. It then switches between the locales in
+ * {@code /lang/bench} every {@code --switchEvery} pulses, until
+ * {@code --switches} switches are done. With {@code --rebuildEvery}
+ * set, all views are thrown away and loaded again after that many
+ * switches, which makes leaked listeners or nodes show up as heap
+ * growth.
+ * <br>
+ * Every pulse is written as one line to the CSV file given by
+ * {@code --out}, with the frame time, the time spent in the locale
+ * switch, the garbage collections since the last pulse and the used
+ * heap. The {@code gc_collection_ms} column is the collection time
+ * the {@link GarbageCollectorMXBean}s report. For concurrent
+ * collectors, like the old generation of G1 or ZGC, this includes
+ * work done next to the application, so it is an upper bound of the
+ * pause time and not the pause time itself.
+ * <br>
+ * To run it headless, put Monocle on the classpath and start it with
+ * {@code -Dglass.platform=Monocle -Dmonocle.platform=Headless
+ * -Dprism.order=sw}, or use {@code -Dprism.order=sw} under Xvfb.
+ */
+@NonNullByDefault
+public class LocaleSwitchHarness extends Application {
+	
+	
+	/**
+	 * The number of language keys defined in the bench language
+	 * files, named bench.k0 to bench.k255.
+	 */
+	private static final int KEY_COUNT = 256;
+	
+	/**
+	 * The locales switched between, in this order.
+	 */
+	private static final Locale[] LOCALES = { Locale.US, Locale.GERMANY,
+			Locale.FRANCE };
+	
+	/**
+	 * The options and their defaults, printed if an option is invalid.
+	 */
+	private static final String USAGE = "Usage: LocaleSwitchHarness "
+			+ "[--nodes=1000] [--menuDepth=5] [--columns=20] "
+			+ "[--controllers=10] [--switches=100] [--switchEvery=2] "
+			+ "[--rebuildEvery=0] [--out=locale-switch.csv]\n"
+			+ "--controllers and --switchEvery have to be at least 1, "
+			+ "all other numbers at least 0";
+	
+	/**
+	 * A controller for one synthetic view.
+	 */
+	public static final class BenchController
+			extends BasicController<EmptyModel> {
+		
+		
+		/**
+		 * The root of the view.
+		 */
+		@FXML
+		private @Nullable VBox root;
+		
+		/**
+		 * The menu holding the language selection.
+		 */
+		@FXML
+		private @Nullable Menu langMenu;
+		
+		/**
+		 * Whether this view should hold the language selection.
+		 */
+		private final boolean withLangMenu;
+		
+		/**
+		 * @param withLangMenu
+		 *        whether this view should hold the language selection
+		 */
+		public BenchController(boolean withLangMenu) {
+			this.withLangMenu = withLangMenu;
+		}
+		
+		@Override
+		protected @Nullable Parent initRoot() {
+			return root;
+		}
+		
+		@Override
+		protected EmptyModel initModel() {
+			return new EmptyModel();
+		}
+		
+		@Override
+		protected void delegatedInit(	@Nullable URL location,
+										@Nullable ResourceBundle resources) {
+			if(withLangMenu) {
+				getModel().fillMenuWithTranslations(langMenu);
+			}
+		}
+		
+		@Override
+		protected boolean isToTranslate() {
+			return true;
+		}
+		
+		@Override
+		public String toString() {
+			return "BenchController";
+		}
+	}
+	
+	/**
+	 * The number of translatable labels over all views.
+	 */
+	private int nodes;
+	
+	/**
+	 * The number of nested menus per view.
+	 */
+	private int menuDepth;
+	
+	/**
+	 * The number of table columns per view.
+	 */
+	private int columns;
+	
+	/**
+	 * The number of views.
+	 */
+	private int controllers;
+	
+	/**
+	 * The number of locale switches to do.
+	 */
+	private int switches;
+	
+	/**
+	 * The number of pulses between two switches.
+	 */
+	private int switchEvery;
+	
+	/**
+	 * The number of switches after which the views are rebuilt, or 0
+	 * to never rebuild them.
+	 */
+	private int rebuildEvery;
+	
+	/**
+	 * The file the measurements are written to.
+	 */
+	private String out = "locale-switch.csv";
+	
+	/**
+	 * The container holding all views.
+	 */
+	private final VBox container = new VBox();
+	
+	/**
+	 * The writer of the measurements, each row being written as soon
+	 * as it is recorded, so the harness itself does not add to the
+	 * measured heap.
+	 */
+	private @Nullable PrintWriter writer;
+	
+	@Override
+	public void start(Stage stage) throws Exception {
+		Map<String, String> named = getParameters().getNamed();
+		try {
+			nodes = option(named, "nodes", 1000, 0);
+			menuDepth = option(named, "menuDepth", 5, 0);
+			columns = option(named, "columns", 20, 0);
+			controllers = option(named, "controllers", 10, 1);
+			switches = option(named, "switches", 100, 0);
+			switchEvery = option(named, "switchEvery", 2, 1);
+			rebuildEvery = option(named, "rebuildEvery", 0, 0);
+		} catch(IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println(USAGE);
+			Platform.exit();
+			return;
+		}
+		out = named.getOrDefault("out", out);
+		
+		Model.changeLocale(Locale.US);
+		Translator.init("bench", LocaleSwitchHarness.class);
+		buildViews();
+		
+		stage.setTitle("Locale switch harness");
+		stage.setScene(new Scene(container, 1280, 800));
+		stage.show();
+		
+		PrintWriter w = writer = new PrintWriter(Files.newBufferedWriter(
+				Paths.get(out), Charset.forName("UTF-8")));
+		w.println("pulse,time_ms,frame_ms,locale,switch_ms,rebuild_ms,"
+				+ "gc_count,gc_collection_ms,heap_used");
+		new Recorder(w).start();
+	}
+	
+	/**
+	 * @param named
+	 *        the named parameters
+	 * @param name
+	 *        the name of the option
+	 * @param def
+	 *        the value if the option is not given
+	 * @param min
+	 *        the smallest allowed value
+	 * @return
+	 * 		the value of the option
+	 * @throws IllegalArgumentException
+	 *         if the option is not a number or smaller than min
+	 */
+	private static int option(	Map<String, String> named,
+								String name,
+								int def,
+								int min) {
+		String value = named.get(name);
+		if(value == null)
+			return def;
+		int v;
+		try {
+			v = Integer.parseInt(value);
+		} catch(NumberFormatException ex) {
+			throw new IllegalArgumentException("--" + name
+					+ " has to be a number, but was " + value, ex);
+		}
+		if(v < min)
+			throw new IllegalArgumentException("--" + name
+					+ " has to be at least " + min + ", but was " + v);
+		return v;
+	}
+	
+	/**
+	 * Replaces all views with newly loaded ones.
+	 * 
+	 * @throws IOException
+	 *         if a generated view could not be loaded
+	 */
+	private void buildViews() throws IOException {
+		container.getChildren().clear();
+		int perView = Math.max(1, nodes / controllers);
+		for(int i = 0; i < controllers; i++) {
+			FXMLLoader loader = new FXMLLoader();
+			loader.setController(new BenchController(i == 0));
+			Parent view = loader.load(new ByteArrayInputStream(fxml(i,
+					perView).getBytes(Charset.forName("UTF-8"))));
+			container.getChildren().add(view);
+		}
+	}
+	
+	/**
+	 * @param view
+	 *        the number of the view, used to spread the keys
+	 * @param labels
+	 *        the number of labels in the view
+	 * @return
+	 * 		the FXML source of one view
+	 */
+	private String fxml(int view, int labels) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		sb.append("<?import javafx.scene.control.*?>\n");
+		sb.append("<?import javafx.scene.layout.*?>\n");
+		sb.append("<VBox fx:id=\"root\" xmlns:fx=\"http://javafx.com/fxml\">");
+		sb.append("<MenuBar>");
+		sb.append("<Menu fx:id=\"langMenu\"").append(key(view)).append("/>");
+		for(int d = 0; d < menuDepth; d++) {
+			sb.append("<Menu").append(key(view + d)).append(">");
+			sb.append("<MenuItem").append(key(view + d + 1)).append("/>");
+		}
+		for(int d = 0; d < menuDepth; d++) {
+			sb.append("</Menu>");
+		}
+		sb.append("</MenuBar>");
+		sb.append("<TableView><columns>");
+		for(int c = 0; c < columns; c++) {
+			sb.append("<TableColumn").append(key(view + c)).append("/>");
+		}
+		sb.append("</columns></TableView>");
+		sb.append("<FlowPane>");
+		for(int l = 0; l < labels; l++) {
+			sb.append("<Label").append(key(view * labels + l)).append("/>");
+		}
+		sb.append("</FlowPane>");
+		sb.append("</VBox>");
+		return sb.toString();
+	}
+	
+	/**
+	 * @param n
+	 *        any number, wrapped around the available keys
+	 * @return
+	 * 		the styleClass attribute holding the language key
+	 */
+	private static String key(int n) {
+		return " styleClass=\"_tl_bench.k" + (n % KEY_COUNT) + "\"";
+	}
+	
+	/**
+	 * Switches the locale on every few pulses and records each
+	 * pulse.
+	 */
+	private final class Recorder extends AnimationTimer {
+		
+		
+		/**
+		 * The garbage collectors, to sum up their counts and times.
+		 */
+		private final List<GarbageCollectorMXBean> gcs = ManagementFactory
+				.getGarbageCollectorMXBeans();
+		
+		/**
+		 * The memory bean, to read the used heap.
+		 */
+		private final MemoryMXBean memory = ManagementFactory
+				.getMemoryMXBean();
+		
+		/**
+		 * The writer of the measurements.
+		 */
+		private final PrintWriter rows;
+		
+		/**
+		 * The time of the first pulse.
+		 */
+		private long start = -1;
+		
+		/**
+		 * The time of the last pulse.
+		 */
+		private long last;
+		
+		/**
+		 * The number of pulses so far.
+		 */
+		private int pulse;
+		
+		/**
+		 * The number of switches so far.
+		 */
+		private int switched;
+		
+		/**
+		 * The collection count over all collectors at the last pulse.
+		 */
+		private long lastGcCount;
+		
+		/**
+		 * The collection time over all collectors at the last pulse,
+		 * including concurrent work for collectors that do any.
+		 */
+		private long lastGcTime;
+		
+		/**
+		 * @param rows
+		 *        the writer of the measurements
+		 */
+		Recorder(PrintWriter rows) {
+			this.rows = rows;
+		}
+		
+		@Override
+		public void handle(long now) {
+			if(start < 0) {
+				start = last = now;
+				lastGcCount = gcCount();
+				lastGcTime = gcTime();
+			}
+			
+			String locale = "";
+			long switchNanos = 0, rebuildNanos = 0;
+			if(pulse > 0 && pulse % switchEvery == 0) {
+				if(switched == switches) {
+					stop();
+					finish(pulse);
+					return;
+				}
+				Locale loc = LOCALES[++switched % LOCALES.length];
+				long t = System.nanoTime();
+				Model.changeLocale(loc);
+				switchNanos = System.nanoTime() - t;
+				locale = loc.toString();
+				
+				if(rebuildEvery > 0 && switched % rebuildEvery == 0) {
+					t = System.nanoTime();
+					try {
+						buildViews();
+					} catch(IOException ex) {
+						ex.printStackTrace();
+					}
+					rebuildNanos = System.nanoTime() - t;
+				}
+			}
+			
+			long gcCount = gcCount(), gcTime = gcTime();
+			rows.println(pulse + "," + millis(now - start) + ","
+					+ millis(now - last) + "," + locale + ","
+					+ millis(switchNanos) + "," + millis(rebuildNanos) + ","
+					+ (gcCount - lastGcCount) + "," + (gcTime - lastGcTime)
+					+ "," + memory.getHeapMemoryUsage().getUsed());
+			lastGcCount = gcCount;
+			lastGcTime = gcTime;
+			last = now;
+			pulse++;
+		}
+		
+		/**
+		 * @return
+		 * 		the collection count summed over all collectors
+		 */
+		private long gcCount() {
+			long sum = 0;
+			for(GarbageCollectorMXBean gc : gcs) {
+				sum += Math.max(0, gc.getCollectionCount());
+			}
+			return sum;
+		}
+		
+		/**
+		 * @return
+		 * 		the collection time in milliseconds summed over all
+		 *         collectors, which is not only pause time for
+		 *         concurrent collectors
+		 */
+		private long gcTime() {
+			long sum = 0;
+			for(GarbageCollectorMXBean gc : gcs) {
+				sum += Math.max(0, gc.getCollectionTime());
+			}
+			return sum;
+		}
+	}
+	
+	/**
+	 * @param nanos
+	 *        a duration in nanoseconds
+	 * @return
+	 * 		the duration in milliseconds, with three decimals
+	 */
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+	
+	/**
+	 * Closes the measurements and exits.
+	 * 
+	 * @param pulses
+	 *        the number of recorded pulses
+	 */
+	private void finish(int pulses) {
+		PrintWriter w = writer;
+		if(w != null) {
+			if(w.checkError()) {
+				System.err.println("Failed to write the measurements to "
+						+ out);
+			}
+			w.close();
+		}
+		System.gc();
+		System.out.printf("%d pulses written to %s, %d bytes heap used "
+				+ "after a final GC%n", pulses, out,
+				ManagementFactory.getMemoryMXBean().getHeapMemoryUsage()
+						.getUsed());
+		Platform.exit();
+	}
+	
+	/**
+	 * @param args
+	 *        the options, like {@code --nodes=10000}
+	 */
+	public static void main(String[] args) {
+		launch(LocaleSwitchHarness.class, args);
+	}
+}
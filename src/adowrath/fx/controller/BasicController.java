@@ -10,6 +10,7 @@ import org.eclipse.jdt.annotation.Nullable;
 
 
 import adowrath.fx.model.Model;
+import adowrath.fx.model.localization.LocalizationBinder;
 import javafx.beans.value.ObservableValue;
 import javafx.fxml.Initializable;
 import javafx.scene.Parent;
@@ -84,6 +85,16 @@ import javafx.scene.Parent;
 	 */
 	protected abstract boolean isToTranslate();
 	
+	/**
+	 * @return
+	 * 		the binder generated for the view of this controller, or
+	 *         null to find the translatable elements by their style
+	 *         classes
+	 */
+	protected @Nullable LocalizationBinder initBinder() {
+		return null;
+	}
+	
 	
 	/**
 	 * @return the model of this controller
@@ -116,13 +127,20 @@ import javafx.scene.Parent;
 	 * Notice that this only inizializes the elements that were
 	 * loaded from the FXML-document. If you add custom elements
 	 * dynamically, make sure to add them yourselves.
+	 * 
+	 * @see #initBinder()
 	 */
 	public void initLocalization() {
 		Parent r;
 		if((r = root) == null)
 			throw new IllegalStateException(toString()
 					+ " did not give a root element, but wants to be translated? Bug!");
-		ourModel.getLocList().initLoc(r.getChildrenUnmodifiable());
+		LocalizationBinder binder = initBinder();
+		if(binder != null) {
+			ourModel.getLocList().bindView(binder, r);
+		} else {
+			ourModel.getLocList().initLoc(r.getChildrenUnmodifiable());
+		}
 	}
 	
 	@Override
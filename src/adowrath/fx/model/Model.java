@@ -1,6 +1,5 @@
 package adowrath.fx.model;
 
-import java.util.Iterator;
 import java.util.Locale;
 
 
@@ -8,6 +7,7 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 
 
+import adowrath.fx.model.localization.LocaleMenuItem;
 import adowrath.fx.model.localization.LocalizedList;
 import adowrath.fx.model.localization.Translator;
 import javafx.beans.property.ObjectProperty;
@@ -19,7 +19,6 @@ import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
-import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.ToggleGroup;
 
 /**
@@ -105,6 +104,10 @@ public abstract class Model {
 			.observableArrayList();
 	
 	/**
+	 * The items are registered in this model's
+	 * {@link #getLocList() localized list}, so they are renamed
+	 * together with the rest of the view when the locale changes.
+	 * 
 	 * @param men
 	 *        the menu in which the language items should be placed
 	 * @throws IllegalStateException
@@ -125,6 +128,7 @@ public abstract class Model {
 					+ " menu was not properly initialized");
 		men.getItems().clear();
 		men.getItems().addAll(translatedItems);
+		locList.initLoc(translatedItems, false);
 	}
 	
 	/**
@@ -137,44 +141,13 @@ public abstract class Model {
 				.observableArrayList();
 		
 		
-		EventHandler<ActionEvent> handler = ae -> {
-			RadioMenuItem rmi = (RadioMenuItem) ae.getSource();
-			String newLocale = null;
-			for(Iterator<String> ite = rmi.getStyleClass().iterator(); ite
-					.hasNext() && newLocale == null;) {
-				String s = ite.next();
-				if(s.startsWith("_lc_")) {
-					newLocale = s.substring(4);
-				}
-			}
-			assert newLocale != null;
-			String[] parts = newLocale.split("_");
-			Locale loc = Translator.getLocale(parts);
-			
-			Model.changeLocale(loc);
-			
-			men.forEach(i -> {
-				String nLocale = null;
-				for(Iterator<String> ite = i.getStyleClass().iterator(); ite
-						.hasNext() && nLocale == null;) {
-					String s = ite.next();
-					if(s.startsWith("_lc_")) {
-						nLocale = s.substring(4);
-					}
-				}
-				assert nLocale != null;
-				String[] nParts = nLocale.split("_");
-				Locale nLoc = Translator.getLocale(nParts);
-				i.setText(nLoc.getDisplayName(Model.getLocale()));
-			});
-		};
+		EventHandler<ActionEvent> handler = ae -> Model
+				.changeLocale(((LocaleMenuItem) ae.getSource()).getItemLocale());
 		
 		ToggleGroup tg = new ToggleGroup();
 		
 		Translator.locales.values().forEach(set -> set.forEach(loc -> {
-			RadioMenuItem rmi = new RadioMenuItem(loc
-					.getDisplayName(Model.getLocale()));
-			rmi.getStyleClass().add("_lc_" + loc.toString());
+			LocaleMenuItem rmi = new LocaleMenuItem(loc);
 			rmi.setToggleGroup(tg);
 			rmi.setOnAction(handler);
 			men.add(rmi);
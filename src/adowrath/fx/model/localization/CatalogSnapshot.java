@@ -0,0 +1,530 @@
+package adowrath.fx.model.localization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A snapshot of parsed language files, so they do not have to be
+ * parsed again on the next start.
+ * <br>
+ * The file starts with a magic number, the format version, the length
+ * of the directory and its CRC32. The directory lists every table
+ * with the {@link LocaleIndex.Entry index entry} and the last
+ * modification time of the language file it was parsed from, so it is
+ * only used as long as the {@link LocaleIndex} still lists the same
+ * size and checksum and the file was not modified since. The encoded
+ * tables follow the directory, each with its own CRC32 in it.
+ * <br>
+ * The file is memory-mapped, and only the directory is read when it is
+ * opened. A table is only checked and decoded when its locale is
+ * requested, so locales that are not used never have to be read from
+ * the disk.
+ * <br>
+ * As a mapped file cannot be replaced on every platform, every save
+ * writes a new generation, named like {@code project-3.snapshot}, and
+ * deletes the older ones as far as they are not mapped anymore.
+ */
+@NonNullByDefault
+final class CatalogSnapshot {
+	
+	
+	/**
+	 * The magic number at the start of every snapshot, "JFXT".
+	 */
+	private static final int MAGIC = 0x4A465854;
+	
+	/**
+	 * The version of the format, to be increased with every change.
+	 */
+	private static final int VERSION = 3;
+	
+	/**
+	 * The size of the header in front of the directory.
+	 */
+	private static final int HEADER_SIZE = 20;
+	
+	/**
+	 * The charset of all strings in the snapshot.
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	/**
+	 * One table of the snapshot.
+	 */
+	private static final class Table {
+		
+		
+		/**
+		 * The index entry of the language file the table was parsed
+		 * from.
+		 */
+		final LocaleIndex.Entry source;
+		
+		/**
+		 * The last modification time of the language file, as given
+		 * by its URL connection.
+		 */
+		final long modified;
+		
+		/**
+		 * The encoded entries, or null if the table was added since
+		 * the snapshot was opened.
+		 */
+		final @Nullable ByteBuffer encoded;
+		
+		/**
+		 * The number of entries.
+		 */
+		final int size;
+		
+		/**
+		 * The entries, if they were added since the snapshot was
+		 * opened.
+		 */
+		final @Nullable Map<String, String> decoded;
+		
+		/**
+		 * The CRC32 of the encoded entries, if read from a file.
+		 */
+		final long crc;
+		
+		/**
+		 * Whether the encoded entries were already checked against the
+		 * CRC32.
+		 */
+		boolean checked;
+		
+		/**
+		 * @param source
+		 *        the index entry of the language file
+		 * @param modified
+		 *        the last modification time of the language file
+		 * @param encoded
+		 *        the encoded entries, if read from a file
+		 * @param size
+		 *        the number of entries
+		 * @param decoded
+		 *        the entries, if newly added
+		 * @param crc
+		 *        the CRC32 of the encoded entries, if read from a file
+		 */
+		Table(	LocaleIndex.Entry source,
+				long modified,
+				@Nullable ByteBuffer encoded,
+				int size,
+				@Nullable Map<String, String> decoded,
+				long crc) {
+			this.source = source;
+			this.modified = modified;
+			this.encoded = encoded;
+			this.size = size;
+			this.decoded = decoded;
+			this.crc = crc;
+		}
+	}
+	
+	/**
+	 * The directory of the snapshot files.
+	 */
+	private final Path dir;
+	
+	/**
+	 * The name of the snapshot, the generation being appended to it.
+	 */
+	private final String name;
+	
+	/**
+	 * The highest generation found or written so far.
+	 */
+	private int generation = 0;
+	
+	/**
+	 * The tables, indexed by the locale's string representation.
+	 */
+	private final Map<String, Table> tables = new TreeMap<>();
+	
+	/**
+	 * Whether tables were added since the snapshot was opened.
+	 */
+	private boolean dirty = false;
+	
+	/**
+	 * @param dir
+	 *        the directory of the snapshot files
+	 * @param name
+	 *        the name of the snapshot
+	 */
+	private CatalogSnapshot(Path dir, String name) {
+		this.dir = dir;
+		this.name = name;
+	}
+	
+	/**
+	 * @param dir
+	 *        the directory of the snapshot files
+	 * @param name
+	 *        the name of the snapshot, like the project
+	 * @return
+	 * 		the snapshot read from the newest valid generation, which
+	 *         is empty if there is none
+	 */
+	static CatalogSnapshot open(Path dir, String name) {
+		CatalogSnapshot snapshot = new CatalogSnapshot(dir, name);
+		List<Integer> generations = snapshot.generations();
+		if(!generations.isEmpty()) {
+			snapshot.generation = generations.get(0);
+		}
+		for(int gen : generations) {
+			if(snapshot.read(snapshot.file(gen)))
+				break;
+			snapshot.tables.clear();
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * @param gen
+	 *        a generation
+	 * @return
+	 * 		the file of this generation
+	 */
+	private Path file(int gen) {
+		return dir.resolve(name + "-" + gen + ".snapshot");
+	}
+	
+	/**
+	 * @return
+	 * 		all generations with a file in the directory, the newest
+	 *         first
+	 */
+	private List<Integer> generations() {
+		List<Integer> generations = new ArrayList<>();
+		if(!Files.isDirectory(dir))
+			return generations;
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(dir, name
+				+ "-*.snapshot")) {
+			for(Path p : files) {
+				String file = p.getFileName().toString();
+				try {
+					generations.add(Integer.parseInt(file.substring(name
+							.length() + 1, file.length() - 9)));
+				} catch(NumberFormatException ex) {
+					// not one of ours
+				}
+			}
+		} catch(IOException ex) {
+			// no generations to read then
+		}
+		Collections.sort(generations, Collections.reverseOrder());
+		return generations;
+	}
+	
+	/**
+	 * @param file
+	 *        the snapshot file to read the tables from
+	 * @return
+	 * 		true if the file is of this version and its directory is
+	 *         not corrupted
+	 */
+	private boolean read(Path file) {
+		try(FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buf = fc.map(MapMode.READ_ONLY, 0, fc.size());
+			if(buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC
+					|| buf.getInt() != VERSION)
+				return false;
+			int dirLength = buf.getInt();
+			long dirCrc = buf.getLong();
+			if(dirLength < 0 || dirLength > buf.remaining())
+				return false;
+			ByteBuffer directory = buf.slice();
+			directory.limit(dirLength);
+			CRC32 actual = new CRC32();
+			actual.update(directory.duplicate());
+			if(actual.getValue() != dirCrc)
+				return false;
+			
+			buf.position(HEADER_SIZE + dirLength);
+			ByteBuffer blocks = buf.slice();
+			int count = directory.getInt();
+			for(int i = 0; i < count; i++) {
+				String locale = getString(directory);
+				LocaleIndex.Entry source = new LocaleIndex.Entry(directory
+						.getLong(), directory.getLong());
+				long modified = directory.getLong();
+				int size = directory.getInt();
+				int offset = directory.getInt();
+				int length = directory.getInt();
+				long crc = directory.getLong();
+				if(offset < 0 || length < 0
+						|| length > blocks.capacity() - offset)
+					return false;
+				blocks.limit(offset + length).position(offset);
+				tables.put(locale, new Table(source, modified, blocks
+						.slice(), size, null, crc));
+			}
+			return true;
+		} catch(IOException | RuntimeException ex) {
+			// A broken snapshot is simply rebuilt
+			return false;
+		}
+	}
+	
+	/**
+	 * @param map
+	 *        the map to store the translations in
+	 * @param loc
+	 *        the required locale
+	 * @param source
+	 *        the current index entry of the locale's language file
+	 * @param modified
+	 *        the current modification time of the language file
+	 * @return
+	 * 		true if the snapshot held a table for the locale that
+	 *         was parsed from the same file, false if the file has to
+	 *         be parsed
+	 */
+	boolean fill(	Map<String, String> map,
+					Locale loc,
+					LocaleIndex.Entry source,
+					long modified) {
+		Table table = tables.get(loc.toString());
+		if(table == null || !table.source.equals(source)
+				|| table.modified != modified)
+			return false;
+		ByteBuffer encoded = table.encoded;
+		if(encoded != null && !table.checked) {
+			CRC32 actual = new CRC32();
+			actual.update(encoded.duplicate());
+			if(actual.getValue() != table.crc) {
+				tables.remove(loc.toString());
+				return false;
+			}
+			table.checked = true;
+		}
+		try {
+			decode(table, map);
+		} catch(BufferUnderflowException ex) {
+			tables.remove(loc.toString());
+			map.clear();
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds or replaces the table of a locale. The snapshot file is
+	 * only updated by {@link #save(Executor)}.
+	 * 
+	 * @param loc
+	 *        the locale
+	 * @param source
+	 *        the index entry of the language file the translations
+	 *        were parsed from
+	 * @param modified
+	 *        the modification time of the language file
+	 * @param map
+	 *        the translations
+	 */
+	void put(	Locale loc,
+				LocaleIndex.Entry source,
+				long modified,
+				Map<String, String> map) {
+		tables.put(loc.toString(), new Table(source, modified, null, map
+				.size(), new HashMap<>(map), 0));
+		dirty = true;
+	}
+	
+	/**
+	 * Writes the snapshot in the background, if tables were added
+	 * since it was opened or last saved. Only the tables are copied
+	 * on the calling thread, the encoding and all file operations are
+	 * done by the executor, which has to run the writes in order.
+	 * 
+	 * @param executor
+	 *        the executor writing the snapshot
+	 */
+	void save(Executor executor) {
+		if(!dirty)
+			return;
+		Map<String, Table> copy = new TreeMap<>(tables);
+		int next = ++generation;
+		dirty = false;
+		executor.execute(() -> {
+			try {
+				write(copy, next);
+			} catch(IOException ex) {
+				Logger.getLogger("Translator").log(Level.WARNING,
+						"Failed to write the language file snapshot", ex);
+			}
+		});
+	}
+	
+	/**
+	 * Writes a new generation. It is written to a uniquely named
+	 * temporary file and only renamed to its final name once it is
+	 * complete, so a concurrently running application neither reads a
+	 * partial snapshot nor writes into the same file. Afterwards, only
+	 * the generations older than the written one are deleted, as newer
+	 * ones were written by another application.
+	 * 
+	 * @param tables
+	 *        the tables to write
+	 * @param next
+	 *        the generation to write
+	 * @throws IOException
+	 *         if the snapshot could not be written
+	 */
+	private void write(Map<String, Table> tables, int next)
+			throws IOException {
+		ByteArrayOutputStream dirBytes = new ByteArrayOutputStream();
+		DataOutputStream dirOut = new DataOutputStream(dirBytes);
+		ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+		dirOut.writeInt(tables.size());
+		for(Map.Entry<String, Table> e : tables.entrySet()) {
+			Table table = e.getValue();
+			ByteArrayOutputStream block = new ByteArrayOutputStream();
+			Map<String, String> entries = table.decoded;
+			ByteBuffer encoded = table.encoded;
+			if(entries != null) {
+				DataOutputStream blockOut = new DataOutputStream(block);
+				for(Map.Entry<String, String> entry : entries.entrySet()) {
+					putString(blockOut, entry.getKey());
+					putString(blockOut, entry.getValue());
+				}
+			} else if(encoded != null) {
+				byte[] b = new byte[encoded.remaining()];
+				encoded.duplicate().get(b);
+				block.write(b);
+			}
+			byte[] bytes = block.toByteArray();
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length);
+			
+			putString(dirOut, e.getKey());
+			dirOut.writeLong(table.source.getSize());
+			dirOut.writeLong(table.source.getChecksum());
+			dirOut.writeLong(table.modified);
+			dirOut.writeInt(table.size);
+			dirOut.writeInt(blocks.size());
+			dirOut.writeInt(bytes.length);
+			dirOut.writeLong(crc.getValue());
+			blocks.write(bytes);
+		}
+		dirOut.flush();
+		
+		byte[] directory = dirBytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(directory, 0, directory.length);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(directory.length)
+				.putLong(crc.getValue());
+		
+		Path file = file(next);
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, name + "-", ".tmp");
+		try {
+			try(FileChannel fc = FileChannel.open(tmp,
+					StandardOpenOption.WRITE)) {
+				header.flip();
+				while(header.hasRemaining()) {
+					fc.write(header);
+				}
+				ByteBuffer body = ByteBuffer.wrap(directory);
+				while(body.hasRemaining()) {
+					fc.write(body);
+				}
+				body = ByteBuffer.wrap(blocks.toByteArray());
+				while(body.hasRemaining()) {
+					fc.write(body);
+				}
+			}
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+		
+		for(int gen : generations()) {
+			if(gen < next) {
+				try {
+					Files.deleteIfExists(file(gen));
+				} catch(IOException ex) {
+					// still mapped, deleted by a later save
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @param table
+	 *        the table to decode
+	 * @param map
+	 *        the map to store its entries in
+	 */
+	private static void decode(Table table, Map<String, String> map) {
+		Map<String, String> decoded = table.decoded;
+		if(decoded != null) {
+			map.putAll(decoded);
+			return;
+		}
+		ByteBuffer encoded = table.encoded;
+		assert encoded != null;
+		ByteBuffer buf = encoded.duplicate();
+		for(int i = 0; i < table.size; i++) {
+			String key = getString(buf);
+			map.put(key, getString(buf));
+		}
+	}
+	
+	/**
+	 * @param buf
+	 *        the buffer to read from
+	 * @return
+	 * 		the length-prefixed UTF-8 string at the buffer's position
+	 */
+	private static String getString(ByteBuffer buf) {
+		byte[] b = new byte[buf.getInt()];
+		buf.get(b);
+		return new String(b, UTF8);
+	}
+	
+	/**
+	 * @param out
+	 *        the stream to write to
+	 * @param s
+	 *        the string to write, length-prefixed and in UTF-8
+	 * @throws IOException
+	 *         if writing failed
+	 */
+	private static void putString(DataOutputStream out, String s)
+			throws IOException {
+		byte[] b = s.getBytes(UTF8);
+		out.writeInt(b.length);
+		out.write(b);
+	}
+}
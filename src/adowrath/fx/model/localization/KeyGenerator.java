@@ -0,0 +1,657 @@
+package adowrath.fx.model.localization;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+import org.xml.sax.SAXException;
+
+
+import javafx.scene.Group;
+import javafx.scene.control.Menu;
+import javafx.scene.control.MenuBar;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.Pane;
+
+/**
+ * The build step generating typed language keys and static
+ * {@link LocalizationBinder bindings}.
+ * <br>
+ * It reads the en_US.lang catalog, which defines the available
+ * keys, and all FXML files, and writes
+ * <ul>
+ * <li>a {@code Keys} class with one {@code int} constant per key,
+ * which can be translated with {@link Translator#translate(int)}
+ * once {@code Keys.register()} was called, preferably before
+ * {@link Translator#init(String, Class)}, and</li>
+ * <li>one {@code <View>Binding} class per FXML file, which binds the
+ * translatable elements of the view by their position, so a
+ * {@link adowrath.fx.controller.BasicController BasicController}
+ * returning it from {@code initBinder()} skips the style class
+ * scan.</li>
+ * </ul>
+ * It fails if an FXML file or another catalog uses a key that is not
+ * in en_US, or if en_US has a key no FXML file uses, unless
+ * {@code --allow-unused} is given for keys only used from code.
+ * <br>
+ * FXML files whose translatable elements cannot be located by
+ * position, for example because they are placed in the {@code top}
+ * of a BorderPane or come from an {@code fx:include}, get no binding
+ * and a warning; their controllers keep using the style class scan.
+ * <br>
+ * JavaFX has to be on the classpath, as the element classes are
+ * resolved to find out how the children are stored.
+ */
+@NonNullByDefault
+public final class KeyGenerator {
+	
+	
+	/**
+	 * The namespace of the fx: elements and attributes.
+	 */
+	private static final String FX_NS = "http://javafx.com/fxml";
+	
+	/**
+	 * The maximum number of bindings per generated method, keeping
+	 * them below the size limit of a method.
+	 */
+	private static final int BINDINGS_PER_METHOD = 500;
+	
+	/**
+	 * Thrown if the elements of a view cannot be located by position.
+	 */
+	private static final class UnsupportedViewException extends Exception {
+		
+		
+		/**
+		 * Generated serial version ID.
+		 */
+		private static final long serialVersionUID = -2811479361385035458L;
+		
+		/**
+		 * @param message
+		 *        why the view is not supported
+		 */
+		UnsupportedViewException(String message) {
+			super(message);
+		}
+	}
+	
+	/**
+	 * The imports of the FXML file currently processed.
+	 */
+	private final List<String> imports = new ArrayList<>();
+	
+	/**
+	 * The bindings of the FXML file currently processed, each being
+	 * the path of child indices from the root and the key.
+	 */
+	private final List<Map.Entry<int[], String>> bindings = new ArrayList<>();
+	
+	/**
+	 * @param args
+	 *        the language directory, the FXML directory, the output
+	 *        source directory, the package of the generated classes
+	 *        and optionally {@code --allow-unused}
+	 * @throws Exception
+	 *         if a file could not be read or written
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length < 4) {
+			System.err.println("Usage: KeyGenerator <lang-directory> "
+					+ "<fxml-directory> <output-directory> <package> "
+					+ "[--allow-unused]");
+			System.exit(1);
+		}
+		boolean allowUnused = args.length > 4
+				&& "--allow-unused".equals(args[4]);
+		if(!new KeyGenerator().generate(Paths.get(args[0]),
+				Paths.get(args[1]), Paths.get(args[2]), args[3],
+				allowUnused)) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * @param langDir
+	 *        the directory of the .lang files
+	 * @param fxmlDir
+	 *        the directory searched for .fxml files, recursively
+	 * @param outDir
+	 *        the source directory the classes are written to
+	 * @param pkg
+	 *        the package of the generated classes
+	 * @param allowUnused
+	 *        whether keys not used by any FXML file are allowed
+	 * @return
+	 * 		true if the keys are consistent and the classes were
+	 *         written
+	 * @throws IOException
+	 *         if a file could not be read or written
+	 * @throws ParserConfigurationException
+	 *         if no XML parser is available
+	 */
+	public boolean generate(Path langDir,
+							Path fxmlDir,
+							Path outDir,
+							String pkg,
+							boolean allowUnused)
+			throws IOException, ParserConfigurationException {
+		List<String> errors = new ArrayList<>();
+		
+		Map<String, Set<String>> catalogs = new TreeMap<>();
+		try(Stream<Path> files = Files.list(langDir)) {
+			for(Path p : (Iterable<Path>) files::iterator) {
+				String name = p.getFileName().toString();
+				if(name.endsWith(".lang")) {
+					catalogs.put(name, readCatalog(p));
+				}
+			}
+		}
+		Set<String> keys = catalogs.get("en_US.lang");
+		if(keys == null) {
+			System.err.println("There is no en_US.lang in " + langDir);
+			return false;
+		}
+		catalogs.forEach((name, catalog) -> catalog.stream()
+				.filter(k -> !keys.contains(k))
+				.forEach(k -> errors.add("Unknown key " + k + " in " + name)));
+		
+		List<Path> views;
+		try(Stream<Path> files = Files.walk(fxmlDir)) {
+			views = files.filter(p -> p.toString().endsWith(".fxml"))
+					.sorted().collect(Collectors.toList());
+		}
+		
+		Set<String> used = new TreeSet<>();
+		Map<String, String> binders = new TreeMap<>();
+		Map<String, Path> binderViews = new HashMap<>();
+		DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+		dbf.setNamespaceAware(true);
+		for(Path view : views) {
+			Document doc;
+			try {
+				doc = dbf.newDocumentBuilder().parse(view.toFile());
+			} catch(SAXException ex) {
+				errors.add("Could not parse " + view + ": " + ex.getMessage());
+				continue;
+			}
+			Element root = doc.getDocumentElement();
+			Set<String> viewKeys = new TreeSet<>();
+			collectKeys(root, viewKeys);
+			for(String k : viewKeys) {
+				if(!keys.contains(k)) {
+					errors.add("Unknown key " + k + " in " + view);
+				}
+			}
+			used.addAll(viewKeys);
+			
+			String name = className(view);
+			Path other = binderViews.put(name, view);
+			if(other != null) {
+				errors.add(view + " and " + other + " would both generate "
+						+ name);
+				continue;
+			}
+			try {
+				binders.put(name, binder(doc, pkg, name));
+			} catch(UnsupportedViewException ex) {
+				System.err.println("Warning: no binding for " + view + ", "
+						+ ex.getMessage());
+			}
+		}
+		
+		if(!allowUnused) {
+			for(String k : keys) {
+				if(!used.contains(k)) {
+					errors.add("Unused key " + k + " in en_US.lang");
+				}
+			}
+		}
+		
+		Map<String, String> constants = new TreeMap<>();
+		for(String k : keys) {
+			String other = constants.put(constant(k), k);
+			if(other != null) {
+				errors.add("The keys " + k + " and " + other
+						+ " both map to the constant " + constant(k));
+			}
+		}
+		
+		if(!errors.isEmpty()) {
+			errors.forEach(System.err::println);
+			return false;
+		}
+		
+		Path pkgDir = outDir.resolve(pkg.replace('.', '/'));
+		Files.createDirectories(pkgDir);
+		write(pkgDir.resolve("Keys.java"), keysClass(pkg, keys));
+		for(Map.Entry<String, String> e : binders.entrySet()) {
+			write(pkgDir.resolve(e.getKey() + ".java"), e.getValue());
+		}
+		System.out.println("Generated " + keys.size() + " keys and "
+				+ binders.size() + " bindings for " + views.size()
+				+ " views");
+		return true;
+	}
+	
+	/**
+	 * @param file
+	 *        a .lang file
+	 * @return
+	 * 		its keys, sorted
+	 * @throws IOException
+	 *         if the file could not be read
+	 */
+	private static Set<String> readCatalog(Path file) throws IOException {
+		Map<String, String> map = new HashMap<>();
+		try(BufferedReader br = Files.newBufferedReader(file,
+				Charset.forName("UTF-8"))) {
+			Translator.parse(br, map, Logger.getLogger("KeyGenerator-"
+					+ file.getFileName()));
+		}
+		return new TreeSet<>(map.keySet());
+	}
+	
+	/**
+	 * @param e
+	 *        an element of an FXML file
+	 * @param keys
+	 *        the set to add the language keys of the element and all
+	 *        its descendants to
+	 */
+	private static void collectKeys(Element e, Set<String> keys) {
+		String key = getKey(e);
+		if(key != null) {
+			keys.add(key);
+		}
+		for(Element c : elements(e)) {
+			collectKeys(c, keys);
+		}
+	}
+	
+	/**
+	 * @param e
+	 *        an instance element of an FXML file
+	 * @return
+	 * 		its first language key, like
+	 *         {@link LocalizedList} would find it, or null if it
+	 *         has none
+	 */
+	private static @Nullable String getKey(Element e) {
+		List<String> classes = new ArrayList<>();
+		if(e.hasAttribute("styleClass")) {
+			for(String s : e.getAttribute("styleClass").split(",")) {
+				classes.add(s.trim());
+			}
+		}
+		for(Element c : elements(e)) {
+			if("styleClass".equals(c.getLocalName())) {
+				for(Element s : elements(c)) {
+					classes.add(s.getAttributeNS(FX_NS, "value"));
+				}
+			}
+		}
+		for(String s : classes) {
+			if(s.startsWith("_tl_"))
+				return s.substring(4);
+		}
+		return null;
+	}
+	
+	/**
+	 * @param doc
+	 *        the FXML file
+	 * @param pkg
+	 *        the package of the binding
+	 * @param name
+	 *        the class name of the binding
+	 * @return
+	 * 		the source of the binding
+	 * @throws UnsupportedViewException
+	 *         if the elements cannot be located by position
+	 */
+	private String binder(Document doc, String pkg, String name)
+			throws UnsupportedViewException {
+		imports.clear();
+		bindings.clear();
+		for(Node n = doc.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if(n instanceof ProcessingInstruction
+					&& "import".equals(((ProcessingInstruction) n).getTarget())) {
+				imports.add(((ProcessingInstruction) n).getData().trim());
+			}
+		}
+		
+		Element root = doc.getDocumentElement();
+		Class<?> rootClass = resolve(root);
+		if(rootClass == null || !(Pane.class.isAssignableFrom(rootClass)
+				|| Group.class.isAssignableFrom(rootClass))) {
+			if(hasKeyedDescendants(root))
+				throw new UnsupportedViewException("the root "
+						+ root.getTagName() + " is no Pane or Group");
+		} else {
+			bindChildren(root, new int[0]);
+		}
+		
+		StringBuilder sb = new StringBuilder();
+		sb.append("// Generated by ").append(KeyGenerator.class.getName())
+				.append(", do not edit\n");
+		sb.append("package ").append(pkg).append(";\n\n");
+		sb.append("import static ")
+				.append(LocalizedList.class.getName()).append(".child;\n\n");
+		sb.append("import ").append(LocalizationBinder.class.getName())
+				.append(";\n");
+		sb.append("import ").append(LocalizedList.class.getName())
+				.append(";\n");
+		sb.append("import javafx.scene.Parent;\n\n");
+		sb.append("public final class ").append(name)
+				.append(" implements LocalizationBinder {\n\n");
+		sb.append("\t@Override\n");
+		sb.append("\tpublic void bind(LocalizedList list, Parent root) {\n");
+		sb.append("\t\tKeys.register();\n");
+		int methods = (bindings.size() + BINDINGS_PER_METHOD - 1)
+				/ BINDINGS_PER_METHOD;
+		for(int m = 0; m < methods; m++) {
+			sb.append("\t\tbind").append(m).append("(list, root);\n");
+		}
+		sb.append("\t}\n");
+		
+		int i = 0;
+		for(Map.Entry<int[], String> e : bindings) {
+			if(i % BINDINGS_PER_METHOD == 0) {
+				if(i > 0) {
+					sb.append("\t}\n");
+				}
+				sb.append("\n\tprivate static void bind")
+						.append(i / BINDINGS_PER_METHOD)
+						.append("(LocalizedList list, Parent root) {\n");
+			}
+			String node = "root";
+			for(int index : e.getKey()) {
+				node = "child(" + node + ", " + index + ")";
+			}
+			sb.append("\t\tlist.bind(").append(node).append(", Keys.")
+					.append(constant(e.getValue())).append(");\n");
+			i++;
+		}
+		if(i > 0) {
+			sb.append("\t}\n");
+		}
+		sb.append("}\n");
+		return sb.toString();
+	}
+	
+	/**
+	 * Adds the bindings of all children of the element, recursing
+	 * like {@link LocalizedList#initLoc(List)} does.
+	 * 
+	 * @param e
+	 *        an element whose class stores its children in a known
+	 *        order
+	 * @param path
+	 *        the path of child indices from the root to this element
+	 * @throws UnsupportedViewException
+	 *         if a keyed element cannot be located by position
+	 */
+	private void bindChildren(Element e, int[] path)
+			throws UnsupportedViewException {
+		List<Element> children = new ArrayList<>();
+		for(Element c : elements(e)) {
+			String tag = c.getLocalName();
+			if(FX_NS.equals(c.getNamespaceURI())) {
+				if("define".equals(tag) || "script".equals(tag))
+					continue;
+				throw new UnsupportedViewException("it uses fx:" + tag);
+			} else if(isInstance(c)) {
+				children.add(c);
+			} else if(tag.indexOf('.') >= 0 || "styleClass".equals(tag)) {
+				continue;
+			} else if("children".equals(tag) || "items".equals(tag)
+					|| "menus".equals(tag) || "columns".equals(tag)) {
+				children.addAll(elements(c));
+			} else if(hasKeyedDescendants(c)) {
+				throw new UnsupportedViewException("the children in "
+						+ e.getTagName() + "." + tag
+						+ " have no known position");
+			}
+		}
+		
+		for(int i = 0; i < children.size(); i++) {
+			Element c = children.get(i);
+			if(FX_NS.equals(c.getNamespaceURI()))
+				throw new UnsupportedViewException("it uses fx:"
+						+ c.getLocalName());
+			int[] childPath = new int[path.length + 1];
+			System.arraycopy(path, 0, childPath, 0, path.length);
+			childPath[path.length] = i;
+			
+			String key = getKey(c);
+			if(key != null) {
+				bindings.add(new SimpleEntry<>(childPath, key));
+			}
+			
+			Class<?> clz = resolve(c);
+			if(clz == null) {
+				if(hasKeyedDescendants(c))
+					throw new UnsupportedViewException("the class of "
+							+ c.getTagName() + " could not be resolved");
+			} else if(MenuBar.class.isAssignableFrom(clz)
+					|| Menu.class.isAssignableFrom(clz)
+					|| TableView.class.isAssignableFrom(clz)
+					|| Pane.class.isAssignableFrom(clz)
+					|| Group.class.isAssignableFrom(clz)) {
+				bindChildren(c, childPath);
+			}
+			// Other classes are not recursed into by LocalizedList,
+			// or only hold skin children when the view is localized.
+		}
+	}
+	
+	/**
+	 * @param e
+	 *        an element of an FXML file
+	 * @return
+	 * 		whether any descendant has a language key
+	 */
+	private static boolean hasKeyedDescendants(Element e) {
+		for(Element c : elements(e)) {
+			if(getKey(c) != null || hasKeyedDescendants(c))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @param e
+	 *        an element of an FXML file
+	 * @return
+	 * 		whether the element creates an instance, like
+	 *         {@code <Label>}, as opposed to setting a property, like
+	 *         {@code <children>}
+	 */
+	private static boolean isInstance(Element e) {
+		if(FX_NS.equals(e.getNamespaceURI()))
+			return false;
+		String tag = e.getLocalName();
+		String simple = tag.substring(tag.lastIndexOf('.') + 1);
+		return !simple.isEmpty() && Character.isUpperCase(simple.charAt(0))
+				&& (tag.indexOf('.') < 0
+						|| Character.isLowerCase(tag.charAt(0)));
+	}
+	
+	/**
+	 * @param e
+	 *        an instance element
+	 * @return
+	 * 		its class, or null if it could not be found
+	 */
+	private @Nullable Class<?> resolve(Element e) {
+		String tag = e.getLocalName();
+		List<String> candidates = new ArrayList<>();
+		if(tag.indexOf('.') >= 0) {
+			candidates.add(tag);
+		} else {
+			for(String imp : imports) {
+				if(imp.endsWith("." + tag)) {
+					candidates.add(imp);
+				} else if(imp.endsWith(".*")) {
+					candidates.add(imp.substring(0, imp.length() - 1) + tag);
+				}
+			}
+			candidates.add("java.lang." + tag);
+		}
+		for(String name : candidates) {
+			try {
+				return Class.forName(name, false,
+						KeyGenerator.class.getClassLoader());
+			} catch(ClassNotFoundException | LinkageError ex) {
+				// try the next import
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param e
+	 *        an element
+	 * @return
+	 * 		its child elements
+	 */
+	private static List<Element> elements(Element e) {
+		List<Element> list = new ArrayList<>();
+		for(Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+			if(n instanceof Element) {
+				list.add((Element) n);
+			}
+		}
+		return list;
+	}
+	
+	/**
+	 * @param view
+	 *        an FXML file
+	 * @return
+	 * 		the class name of its binding, like MainViewBinding for
+	 *         mainView.fxml or main-view.fxml
+	 */
+	private static String className(Path view) {
+		String file = view.getFileName().toString();
+		StringBuilder sb = new StringBuilder();
+		for(String part : file.substring(0, file.length() - 5)
+				.split("[^\\p{Alnum}]+")) {
+			if(!part.isEmpty()) {
+				sb.append(Character.toUpperCase(part.charAt(0)))
+						.append(part.substring(1));
+			}
+		}
+		return identifier(sb.toString()) + "Binding";
+	}
+	
+	/**
+	 * @param key
+	 *        a language key, like menu.file.open
+	 * @return
+	 * 		the name of its constant, like MENU_FILE_OPEN
+	 */
+	private static String constant(String key) {
+		return identifier(key).toUpperCase(Locale.ROOT);
+	}
+	
+	/**
+	 * @param s
+	 *        any string
+	 * @return
+	 * 		the string with all characters not allowed in an
+	 *         identifier replaced by underscores
+	 */
+	private static String identifier(String s) {
+		StringBuilder sb = new StringBuilder();
+		for(char c : s.toCharArray()) {
+			sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+		}
+		if(sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) {
+			sb.insert(0, '_');
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * @param pkg
+	 *        the package of the class
+	 * @param keys
+	 *        all keys, sorted
+	 * @return
+	 * 		the source of the Keys class
+	 */
+	private static String keysClass(String pkg, Set<String> keys) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("// Generated by ").append(KeyGenerator.class.getName())
+				.append(", do not edit\n");
+		sb.append("package ").append(pkg).append(";\n\n");
+		sb.append("import ").append(Translator.class.getName())
+				.append(";\n\n");
+		sb.append("public final class Keys {\n\n");
+		int i = 0;
+		for(String k : keys) {
+			sb.append("\t/** ").append(k.replace("*/", "*&#47;"))
+					.append(" */\n");
+			sb.append("\tpublic static final int ").append(constant(k))
+					.append(" = ").append(i++).append(";\n");
+		}
+		sb.append("\n\tpublic static final String[] NAMES = {\n");
+		for(String k : keys) {
+			sb.append("\t\t\"").append(k.replace("\\", "\\\\")
+					.replace("\"", "\\\"")).append("\",\n");
+		}
+		sb.append("\t};\n\n");
+		sb.append("\t/** Registers the keys, call this before using them. */\n");
+		sb.append("\tpublic static void register() {\n");
+		sb.append("\t\tTranslator.registerKeys(NAMES);\n");
+		sb.append("\t}\n\n");
+		sb.append("\tprivate Keys() {}\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+	
+	/**
+	 * @param file
+	 *        the file to write
+	 * @param content
+	 *        its content
+	 * @throws IOException
+	 *         if writing failed
+	 */
+	private static void write(Path file, String content) throws IOException {
+		try(Writer w = Files.newBufferedWriter(file,
+				Charset.forName("UTF-8"))) {
+			w.write(content);
+		}
+	}
+}
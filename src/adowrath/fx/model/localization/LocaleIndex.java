@@ -0,0 +1,245 @@
+package adowrath.fx.model.localization;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The index of all language files of a project, stored next to them
+ * as {@value #FILE_NAME}.
+ * <br>
+ * Every line holds the name of a locale, the size of its .lang file
+ * in bytes and the CRC32 of its contents, separated by tabs:
+ * 
+ * <pre>
+ * en_US	1234	89abcdef
+ * </pre>
+ * 
+ * Lines starting with # are comments.
+ * <br>
+ * The index is generated at build time by running this class with
+ * the language directory as its argument, so the
+ * {@link Translator} can discover the locales with one small
+ * resource read, even from inside a jar.
+ */
+@NonNullByDefault
+public final class LocaleIndex {
+	
+	
+	/**
+	 * The name of the index file inside the language directory.
+	 */
+	public static final String FILE_NAME = "locales.index";
+	
+	/**
+	 * The size and checksum of one language file.
+	 */
+	public static final class Entry {
+		
+		
+		/**
+		 * The size of the file in bytes.
+		 */
+		private final long size;
+		
+		/**
+		 * The CRC32 of the file contents.
+		 */
+		private final long checksum;
+		
+		/**
+		 * @param size
+		 *        the size of the file in bytes
+		 * @param checksum
+		 *        the CRC32 of the file contents
+		 */
+		public Entry(long size, long checksum) {
+			this.size = size;
+			this.checksum = checksum;
+		}
+		
+		/**
+		 * @return
+		 * 		the size of the file in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+		
+		/**
+		 * @return
+		 * 		the CRC32 of the file contents
+		 */
+		public long getChecksum() {
+			return checksum;
+		}
+		
+		@Override
+		public boolean equals(@Nullable Object obj) {
+			if(!(obj instanceof Entry))
+				return false;
+			Entry o = (Entry) obj;
+			return size == o.size && checksum == o.checksum;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Long.hashCode(size) * 31 + Long.hashCode(checksum);
+		}
+	}
+	
+	/**
+	 * The entries, indexed by the locale's string representation so
+	 * the written index is sorted.
+	 */
+	private final Map<String, Entry> entries = new TreeMap<>();
+	
+	/**
+	 * @return
+	 * 		an unmodifiable view on all entries, indexed by the
+	 *         string representation of their locale
+	 */
+	public Map<String, Entry> getEntries() {
+		return Collections.unmodifiableMap(entries);
+	}
+	
+	/**
+	 * @param loc
+	 *        the locale to look up
+	 * @return
+	 * 		the entry of its language file, or null if the index
+	 *         does not contain it
+	 */
+	public @Nullable Entry get(Locale loc) {
+		return entries.get(loc.toString());
+	}
+	
+	/**
+	 * @param in
+	 *        the stream to read the index from, it is closed
+	 *        afterwards
+	 * @return
+	 * 		the parsed index
+	 * @throws IOException
+	 *         if the stream could not be read or contains a malformed
+	 *         line
+	 */
+	public static LocaleIndex read(InputStream in) throws IOException {
+		LocaleIndex index = new LocaleIndex();
+		try(BufferedReader br = new BufferedReader(new InputStreamReader(in,
+				Charset.forName("UTF-8")))) {
+			String line;
+			while((line = br.readLine()) != null) {
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] parts = line.split("\t");
+				if(parts.length != 3)
+					throw new IOException("Malformed index line: " + line);
+				try {
+					index.entries.put(parts[0],
+							new Entry(Long.parseLong(parts[1]),
+									Long.parseLong(parts[2], 16)));
+				} catch(NumberFormatException ex) {
+					throw new IOException("Malformed index line: " + line,
+							ex);
+				}
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * @param dir
+	 *        the directory containing the .lang files
+	 * @return
+	 * 		the index of all .lang files in it
+	 * @throws IOException
+	 *         if the directory or one of the files could not be read
+	 */
+	public static LocaleIndex scan(Path dir) throws IOException {
+		LocaleIndex index = new LocaleIndex();
+		try(Stream<Path> files = Files.list(dir)) {
+			for(Path p : (Iterable<Path>) files::iterator) {
+				String name = p.getFileName().toString();
+				if(name.endsWith(".lang")) {
+					byte[] content = Files.readAllBytes(p);
+					index.entries.put(name.substring(0, name.length() - 5),
+							new Entry(content.length, checksum(content)));
+				}
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * @param content
+	 *        the contents of a language file
+	 * @return
+	 * 		the CRC32 of the contents
+	 */
+	public static long checksum(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		return crc.getValue();
+	}
+	
+	/**
+	 * @param out
+	 *        the writer to write the index to, it is not closed
+	 * @throws IOException
+	 *         if writing failed
+	 */
+	public void write(Writer out) throws IOException {
+		out.write("# Generated by " + LocaleIndex.class.getName()
+				+ ", do not edit\n");
+		for(Map.Entry<String, Entry> e : entries.entrySet()) {
+			out.write(e.getKey() + "\t" + e.getValue().getSize() + "\t"
+					+ Long.toHexString(e.getValue().getChecksum()) + "\n");
+		}
+	}
+	
+	/**
+	 * Generates the {@value #FILE_NAME} for every given language
+	 * directory.
+	 * 
+	 * @param args
+	 *        the language directories, like
+	 *        {@code src/lang/myProject}
+	 * @throws IOException
+	 *         if a directory could not be scanned or the index could
+	 *         not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length == 0) {
+			System.err.println("Usage: LocaleIndex <lang-directory>...");
+			System.exit(1);
+		}
+		for(String arg : args) {
+			Path dir = Paths.get(arg);
+			LocaleIndex index = scan(dir);
+			try(Writer w = Files.newBufferedWriter(dir.resolve(FILE_NAME),
+					Charset.forName("UTF-8"))) {
+				index.write(w);
+			}
+			System.out.println("Indexed " + index.entries.size()
+					+ " locales in " + dir);
+		}
+	}
+}
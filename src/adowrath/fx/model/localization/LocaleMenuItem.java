@@ -0,0 +1,78 @@
+package adowrath.fx.model.localization;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+
+import adowrath.fx.model.Model;
+import javafx.scene.control.RadioMenuItem;
+
+/**
+ * A menu item selecting one of the available locales.
+ * <br>
+ * Its text is the display name of its locale in the currently
+ * selected locale, which is updated by the {@link LocalizedList}
+ * like any other translatable element.
+ */
+@NonNullByDefault
+public class LocaleMenuItem extends RadioMenuItem {
+	
+	
+	/**
+	 * The display names computed so far, indexed by the locale they
+	 * are displayed in and then by the locale they name.
+	 */
+	private static final Map<Locale, Map<Locale, String>> displayNames = new HashMap<>();
+	
+	/**
+	 * The locale selected by this item.
+	 */
+	private final Locale itemLocale;
+	
+	/**
+	 * @param loc
+	 *        the locale selected by this item
+	 */
+	public LocaleMenuItem(Locale loc) {
+		itemLocale = loc;
+		localize();
+	}
+	
+	/**
+	 * @return
+	 * 		the locale selected by this item
+	 */
+	public final Locale getItemLocale() {
+		return itemLocale;
+	}
+	
+	/**
+	 * Sets the text to the display name of this item's locale in the
+	 * currently selected locale, and selects this item if its locale
+	 * is the selected one, no matter how it was selected.
+	 */
+	public final void localize() {
+		Locale current = Model.getLocale();
+		setText(getDisplayName(itemLocale, current));
+		setSelected(itemLocale.equals(current));
+	}
+	
+	/**
+	 * @param target
+	 *        the locale to name
+	 * @param display
+	 *        the locale the name should be in
+	 * @return
+	 * 		the display name of {@code target} in {@code display},
+	 *         computed only on the first request
+	 */
+	@SuppressWarnings("null")
+	public static String getDisplayName(Locale target, Locale display) {
+		return displayNames.computeIfAbsent(display, k -> new HashMap<>())
+				.computeIfAbsent(target, t -> t.getDisplayName(display));
+	}
+}
@@ -0,0 +1,31 @@
+package adowrath.fx.model.localization;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+
+import javafx.scene.Parent;
+
+/**
+ * Binds the translatable elements of one FXML view to their dense
+ * keys, replacing the style class scan of
+ * {@link LocalizedList#initLoc(java.util.List)}.
+ * <br>
+ * Implementations are generated by the {@link KeyGenerator} and
+ * locate the elements by their position in the FXML file, so the
+ * view must not be restructured before it is bound. If it does not
+ * match the view anymore,
+ * {@link LocalizedList#bindView(LocalizationBinder, Parent)} falls
+ * back to the style class scan.
+ */
+@NonNullByDefault
+public interface LocalizationBinder {
+	
+	
+	/**
+	 * @param list
+	 *        the list to bind the elements in
+	 * @param root
+	 *        the root element of the view
+	 */
+	void bind(LocalizedList list, Parent root);
+}
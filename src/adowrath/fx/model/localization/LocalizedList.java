@@ -4,10 +4,14 @@ import static adowrath.fx.model.localization.Translator.translate;
 
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -16,9 +20,14 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import javafx.css.Styleable;
 import javafx.scene.Parent;
+import javafx.scene.control.Labeled;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TableColumnBase;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextInputControl;
 
 /**
  * This List (not implementing the List interface, but still
@@ -36,6 +45,12 @@ import javafx.scene.control.TableView;
  * prevents the children from also being re-added, change to
  * {@code true} if
  * you want this behaviour
+ * <br>
+ * <br>
+ * Views with a {@link LocalizationBinder} generated by the
+ * {@link KeyGenerator} {@link #bind(Styleable, int) bind} their
+ * elements to dense keys directly instead, see
+ * {@link #bindView(LocalizationBinder, Parent)}.
  */
 @NonNullByDefault public class LocalizedList {
 	
@@ -46,12 +61,39 @@ import javafx.scene.control.TableView;
 	 */
 	private Map<Styleable, String> backingMap = new HashMap<>();
 	
+	/**
+	 * The language selection items, which are named after their
+	 * locale instead of a language key
+	 */
+	private Set<LocaleMenuItem> localeItems = new HashSet<>();
+	
+	/**
+	 * The elements bound to a dense key
+	 */
+	private List<Styleable> boundItems = new ArrayList<>();
+	
+	/**
+	 * The dense keys of the bound elements, at the same index
+	 */
+	private int[] boundKeys = new int[16];
+	
+	/**
+	 * The index of each bound element in {@link #boundItems}
+	 */
+	private Map<Styleable, Integer> boundIndex = new HashMap<>();
+	
 	/**
 	 * Updates the list with the new selected language
 	 */
 	public void updateList() {
 		for(Entry<Styleable, String> e : backingMap.entrySet()) {
-			setText(e.getKey(), e.getValue());
+			setText(e.getKey(), translate(e.getValue()));
+		}
+		for(int i = 0; i < boundItems.size(); i++) {
+			setText(boundItems.get(i), Translator.translate(boundKeys[i]));
+		}
+		for(LocaleMenuItem item : localeItems) {
+			item.localize();
 		}
 	}
 	
@@ -69,6 +111,80 @@ import javafx.scene.control.TableView;
 		}
 	}
 	
+	/**
+	 * Binds all elements of a view with its binder. If the binder does
+	 * not match the view anymore, because the FXML file was changed
+	 * without generating the binder again, the view is added with
+	 * {@link #initLoc(List)} instead.
+	 * 
+	 * @param binder
+	 *        the binder of the view
+	 * @param root
+	 *        the root element of the view
+	 */
+	public void bindView(LocalizationBinder binder, Parent root) {
+		try {
+			binder.bind(this, root);
+		} catch(IllegalArgumentException | IndexOutOfBoundsException ex) {
+			System.err.println(binder.getClass().getName()
+					+ " does not match its view, regenerate it: "
+					+ ex.getMessage());
+			initLoc(root.getChildrenUnmodifiable());
+		}
+	}
+	
+	/**
+	 * Adds the styleable with a dense key, without looking at its
+	 * children. Binding an already bound styleable again only replaces
+	 * its key.
+	 * 
+	 * @param styleable
+	 *        the styleable to add
+	 * @param key
+	 *        its dense key, as generated by {@link KeyGenerator}
+	 * @throws IllegalArgumentException
+	 *         if the styleable does not have this key as its style
+	 *         class
+	 */
+	public void bind(Styleable styleable, int key) {
+		String name = Translator.keyName(key);
+		if(!name.equals(getKey(styleable)))
+			throw new IllegalArgumentException(styleable + " is not bound to "
+					+ name);
+		backingMap.remove(styleable);
+		Integer index = boundIndex.get(styleable);
+		if(index != null) {
+			boundKeys[index] = key;
+		} else {
+			if(boundItems.size() == boundKeys.length) {
+				boundKeys = Arrays.copyOf(boundKeys, boundKeys.length * 2);
+			}
+			boundIndex.put(styleable, boundItems.size());
+			boundKeys[boundItems.size()] = key;
+			boundItems.add(styleable);
+		}
+		setText(styleable, Translator.translate(key));
+	}
+	
+	/**
+	 * Removes the styleable from the bound elements, if it is one.
+	 * 
+	 * @param styleable
+	 *        the styleable to remove
+	 */
+	private void unbind(Styleable styleable) {
+		Integer index = boundIndex.remove(styleable);
+		if(index == null)
+			return;
+		int last = boundItems.size() - 1;
+		Styleable moved = boundItems.remove(last);
+		if(index != last) {
+			boundItems.set(index, moved);
+			boundKeys[index] = boundKeys[last];
+			boundIndex.put(moved, index);
+		}
+	}
+	
 	/**
 	 * Adds all children recursively.
 	 * 
@@ -90,10 +206,17 @@ import javafx.scene.control.TableView;
 	 *        whether or not to translate the children, if it has any
 	 */
 	private void locChildren(Styleable container, boolean doChildren) {
+		if(container instanceof LocaleMenuItem) {
+			LocaleMenuItem item = (LocaleMenuItem) container;
+			localeItems.add(item);
+			item.localize();
+			return;
+		}
 		String localizable = getKey(container);
 		if(localizable != null) {
+			unbind(container);
 			backingMap.put(container, localizable);
-			setText(container, localizable);
+			setText(container, translate(localizable));
 		}
 		if(!doChildren)
 			return;
@@ -112,16 +235,66 @@ import javafx.scene.control.TableView;
 		}
 	}
 	
+	/**
+	 * @param container
+	 *        a styleable that was or would be recursed into by
+	 *        {@link #initLoc(List)}
+	 * @param index
+	 *        the index of the child
+	 * @return
+	 * 		the child at this index, in the same order the
+	 *         {@link #initLoc(List)} recursion visits them
+	 * @throws IllegalArgumentException
+	 *         if the styleable has no children
+	 */
+	@SuppressWarnings("null")
+	public static Styleable child(Styleable container, int index) {
+		if(container instanceof MenuBar) {
+			return ((MenuBar) container).getMenus().get(index);
+		} else if(container instanceof Menu) {
+			return ((Menu) container).getItems().get(index);
+		} else if(container instanceof TableView) {
+			return ((TableView<?>) container).getColumns().get(index);
+		} else if(container instanceof Parent) {
+			return ((Parent) container).getChildrenUnmodifiable().get(index);
+		}
+		throw new IllegalArgumentException(container
+				+ " does not have any children");
+	}
+	
 	/**
 	 * @param s
 	 *        the styleable which needs its text replaced
-	 * @param key
-	 *        the language key
+	 * @param text
+	 *        the translated text
+	 */
+	private static void setText(Styleable s, String text) {
+		if(s instanceof Labeled) {
+			((Labeled) s).setText(text);
+		} else if(s instanceof MenuItem) {
+			((MenuItem) s).setText(text);
+		} else if(s instanceof TableColumnBase) {
+			((TableColumnBase<?, ?>) s).setText(text);
+		} else if(s instanceof Tab) {
+			((Tab) s).setText(text);
+		} else if(s instanceof TextInputControl) {
+			((TextInputControl) s).setText(text);
+		} else {
+			setTextReflectively(s, text);
+		}
+	}
+	
+	/**
+	 * @param s
+	 *        the styleable of a class not known to have a #setText
+	 *        method
+	 * @param text
+	 *        the translated text
 	 */
-	private static void setText(Styleable s, String key) {
+	private static void setTextReflectively(Styleable s, String text) {
 		try {
 			s.getClass().getMethod("setText", String.class)
-					.invoke(s, translate(key));
+					.invoke(s, text);
 		} catch(IllegalAccessException | IllegalArgumentException
 				| InvocationTargetException | NoSuchMethodException
 				| SecurityException ex) {
@@ -2,18 +2,30 @@ package adowrath.fx.model.localization;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -37,6 +49,11 @@ import javafx.scene.control.Alert.AlertType;
  * <br>
  * Do this before any FXML file gets loaded with its
  * {@code controller}.
+ * <br>
+ * If the project has a {@link LocaleIndex locale index}, the parsed
+ * language files are kept in a snapshot in the
+ * {@link #setCacheDirectory(Path) cache directory}, so later starts
+ * skip parsing files that did not change.
  */
 @NonNullByDefault
 public final class Translator {
@@ -75,37 +92,158 @@ public final class Translator {
 	public static final Map<String, Set<Locale>> locales = new HashMap<>();
 	
 	/**
-	 * Loads all the .lang files in the specified directory
+	 * The names of the generated dense keys, the index in this array
+	 * being the key.
+	 */
+	private static String[] keyNames = new String[0];
+	
+	/**
+	 * The translations of the dense keys, rebuilt whenever a language
+	 * file is loaded.
+	 */
+	private static String[] table = new String[0];
+	
+	/**
+	 * The locale index, or null if the project has none.
+	 */
+	private static @Nullable LocaleIndex index = null;
+	
+	/**
+	 * The directory the snapshot of the parsed language files is kept
+	 * in, or null to not keep one.
+	 */
+	private static @Nullable Path cacheDirectory = defaultCacheDirectory();
+	
+	/**
+	 * The snapshot of the parsed language files, or null if none is
+	 * kept.
+	 */
+	private static @Nullable CatalogSnapshot snapshot = null;
+	
+	/**
+	 * Writes the snapshot off the FX thread. Its only thread ends
+	 * shortly after the last write, and is no daemon, so a pending
+	 * write still completes when the application exits.
+	 */
+	private static final ExecutorService snapshotWriter = new ThreadPoolExecutor(
+			0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+			r -> new Thread(r, "Translator snapshot writer"));
+	
+	/**
+	 * @return
+	 * 		the directory given by the {@code adowrath.fx.cacheDir}
+	 *         system property, or .jfxbase/cache in the user's home
+	 */
+	private static Path defaultCacheDirectory() {
+		String dir = System.getProperty("adowrath.fx.cacheDir");
+		if(dir != null)
+			return Paths.get(dir);
+		return Paths.get(System.getProperty("user.home"), ".jfxbase",
+				"cache");
+	}
+	
+	/**
+	 * Sets the directory the snapshot of the parsed language files is
+	 * kept in. This has to be called before {@link #init(String, Class)}
+	 * to have an effect.
+	 * 
+	 * @param dir
+	 *        the cache directory, or null to not keep a snapshot
+	 */
+	public static void setCacheDirectory(@Nullable Path dir) {
+		cacheDirectory = dir;
+	}
+	
+	/**
+	 * Registers all available locales, preferably from the
+	 * {@link LocaleIndex#FILE_NAME locale index}. If there is none,
+	 * the language directory is scanned instead.
 	 */
-	@SuppressWarnings("null")
 	private static void loadLocales() {
 		locales.clear();
-		Stream<Path> files = null;
+		LocaleIndex idx = index = loadIndex();
+		if(idx != null) {
+			idx.getEntries().keySet().forEach(Translator::registerLocale);
+		} else {
+			scanLocales();
+		}
+	}
+	
+	/**
+	 * @return
+	 * 		the locale index of this project, or null if there is none
+	 *         or it could not be read
+	 */
+	private static @Nullable LocaleIndex loadIndex() {
+		InputStream in = getLangStream(LocaleIndex.FILE_NAME);
+		if(in == null)
+			return null;
+		try {
+			return LocaleIndex.read(in);
+		} catch(IOException ex) {
+			Logger.getLogger("Translator").log(Level.WARNING,
+					"Failed to read the locale index, scanning instead", ex);
+			return null;
+		}
+	}
+	
+	/**
+	 * Loads all the .lang files in the language directory, which is
+	 * located via the en_US file, or the current locale's file if
+	 * there is no en_US. Directories inside a jar are listed through
+	 * a zip file system.
+	 */
+	private static void scanLocales() {
+		URI uri = getLangURI(Locale.US);
+		if(uri == null && (uri = getLangURI(currentLocale)) == null) {
+			System.err.println("No language files found for " + project
+					+ "!");
+			return;
+		}
 		try {
-			files = Files
-					.list(Paths.get(getLangURI(currentLocale)).getParent());
+			if("jar".equals(uri.getScheme())) {
+				try(FileSystem fs = FileSystems
+						.newFileSystem(uri, Collections.emptyMap())) {
+					listLocales(fs.provider().getPath(uri).getParent());
+				} catch(FileSystemAlreadyExistsException ex) {
+					listLocales(Paths.get(uri).getParent());
+				}
+			} else {
+				listLocales(Paths.get(uri).getParent());
+			}
+		} catch(IOException | UncheckedIOException ex) {
+			ex.printStackTrace();
+		}
+	}
+	
+	/**
+	 * @param dir
+	 *        the directory whose .lang files should be registered
+	 * @throws IOException
+	 *         if the directory could not be listed
+	 */
+	@SuppressWarnings("null")
+	private static void listLocales(Path dir) throws IOException {
+		try(Stream<Path> files = Files.list(dir)) {
 			files.forEach(path -> {
 				String locale = path.getFileName().toString();
 				if(locale.endsWith(".lang")) {
-					locale = locale.substring(0, locale.length() - 5);
-				} else
-					return;
-				String[] parts = locale.split("_");
-				String lang = parts[0];
-				Locale nLoc = getLocale(parts);
-				
-				locales.putIfAbsent(lang, new HashSet<>());
-				locales.get(lang).add(nLoc);
+					registerLocale(locale.substring(0, locale.length() - 5));
+				}
 			});
-		} catch(IOException ex) {
-			ex.printStackTrace();
-		} finally {
-			if(files != null) {
-				files.close();
-			}
 		}
 	}
 	
+	/**
+	 * @param locale
+	 *        the name of the locale, like en_US
+	 */
+	private static void registerLocale(String locale) {
+		String[] parts = locale.split("_");
+		locales.computeIfAbsent(parts[0], k -> new HashSet<>())
+				.add(getLocale(parts));
+	}
+	
 	/**
 	 * @param parts
 	 *        the parts of the language, only up to 3 parts.
@@ -146,10 +284,16 @@ public final class Translator {
 		projectClass = projectClz;
 		
 		loadLocales();
+		Path dir = cacheDirectory;
+		if(index != null && dir != null) {
+			snapshot = CatalogSnapshot.open(dir, projectName);
+		}
 		load(fallBack, Locale.US);
 		if(!Locale.US.equals(currentLocale)) {
 			load(transMap, currentLocale);
 		}
+		saveSnapshot();
+		rebuildTable();
 		
 		Model.addLocaleListener(Translator::changed);
 	}
@@ -177,14 +321,70 @@ public final class Translator {
 	 * @param key
 	 *        the language key that should be used
 	 * @return
-	 * 		the translation, or, if it was found neither in the
-	 *         current language nor in the fallBack
+	 * 		the translation in the current language, else the one in
+	 *         the fallBack, or, if it was found in neither, the key
+	 *         itself
 	 */
 	@SuppressWarnings("null")
 	public static String translate(String key) {
 		String val;
-		return ((val = fallBack.get(key)) != null)
-				|| ((val = transMap.get(key)) != null) ? val : key;
+		return ((val = transMap.get(key)) != null)
+				|| ((val = fallBack.get(key)) != null) ? val : key;
+	}
+	
+	/**
+	 * @param key
+	 *        a dense key, as generated by {@link KeyGenerator}
+	 * @return
+	 * 		the translation, like {@link #translate(String)} would
+	 *         return it for the key's name
+	 * @throws IllegalStateException
+	 *         if the key was not {@link #registerKeys(String[])
+	 *         registered}, usually because the generated
+	 *         {@code Keys.register()} was not called yet
+	 */
+	public static String translate(int key) {
+		if(key < 0 || key >= table.length)
+			throw new IllegalStateException("The key " + key
+					+ " is not registered, call Keys.register() first");
+		return table[key];
+	}
+	
+	/**
+	 * @param key
+	 *        a dense key, as generated by {@link KeyGenerator}
+	 * @return
+	 * 		the name of the key
+	 */
+	public static String keyName(int key) {
+		return keyNames[key];
+	}
+	
+	/**
+	 * Registers the names of the dense keys, so they can be translated
+	 * with {@link #translate(int)}. Registering the same array again
+	 * does nothing.
+	 * 
+	 * @param names
+	 *        the names of the keys, indexed by the key
+	 */
+	public static void registerKeys(String[] names) {
+		if(keyNames != names) {
+			keyNames = names;
+			rebuildTable();
+		}
+	}
+	
+	/**
+	 * Translates all dense keys with the currently loaded language
+	 * files.
+	 */
+	private static void rebuildTable() {
+		String[] t = new String[keyNames.length];
+		for(int i = 0; i < t.length; i++) {
+			t[i] = translate(keyNames[i]);
+		}
+		table = t;
 	}
 	
 	/**
@@ -197,7 +397,10 @@ public final class Translator {
 		if(!currentLocale.equals(loc)) {
 			currentLocale = loc;
 			transMap.clear();
-			return load(transMap, currentLocale);
+			boolean loaded = load(transMap, currentLocale);
+			saveSnapshot();
+			rebuildTable();
+			return loaded;
 		}
 		return true;
 	}
@@ -209,6 +412,12 @@ public final class Translator {
 	 * If the locale does not have a corresponding file (which should
 	 * not happen, but it could have been deleted), this method prints
 	 * an error and returns silently with a false
+	 * <br>
+	 * The translations are taken from the snapshot instead, if it
+	 * holds them for the same file, and added to it otherwise. If the
+	 * size of the file does not match the locale index, the index is
+	 * out of date, so a warning is logged and the snapshot is not
+	 * used for this file.
 	 * 
 	 * @param map
 	 *        the map to store the translations in
@@ -220,35 +429,35 @@ public final class Translator {
 	 */
 	private static boolean load(Map<String, String> map, Locale loc) {
 		Logger log = Logger.getLogger("Translator-" + loc);
+		URL url = getLangURL(loc + ".lang");
+		if(url == null) {
+			System.err.println("The " + loc + " file has been deleted!");
+			return false;
+		}
 		BufferedReader br = null;
 		try {
-			URI uri = getLangURI(loc);
-			if(uri == null) {
-				System.err.println("The " + loc + " file has been deleted!");
-				return false;
-			}
-			br = Files.newBufferedReader(	Paths.get(uri),
-											Charset.forName("UTF-8"));
+			URLConnection conn = url.openConnection();
+			br = new BufferedReader(new InputStreamReader(conn
+					.getInputStream(), Charset.forName("UTF-8")));
 			
-			br.lines().forEach((String line) -> {
-				if(!(line.startsWith("#") || line.startsWith("//"))) {
-					int i = line.indexOf('=');
-					int c = Math.min(line.indexOf('#'), line.indexOf("//"));
-					if(i >= 0) {
-						String key = line.substring(0, i).trim(), value = line
-								.substring(i + 1, c >= 0 ? c : line.length())
-								.trim();
-						
-						if(map.containsKey(key)) {
-							log.log(Level.WARNING,
-									"Found duplicate entry at " + key);
-						} else {
-							map.put(key, value);
-						}
-					}
-				}
-			});
+			LocaleIndex idx = index;
+			LocaleIndex.Entry source = idx != null ? idx.get(loc) : null;
+			if(source != null
+					&& conn.getContentLengthLong() != source.getSize()) {
+				log.log(Level.WARNING, "The locale index does not match "
+						+ url + ", it has to be regenerated");
+				source = null;
+			}
+			long modified = conn.getLastModified();
+			CatalogSnapshot snap = snapshot;
+			if(snap != null && source != null
+					&& snap.fill(map, loc, source, modified))
+				return true;
 			
+			parse(br, map, log);
+			if(snap != null && source != null) {
+				snap.put(loc, source, modified, map);
+			}
 		} catch(IOException | UncheckedIOException e) {
 			log.log(Level.SEVERE, "Failed to load language file for \"" + loc
 					+ "\", falling back to en_US!", e);
@@ -265,6 +474,93 @@ public final class Translator {
 		return true;
 	}
 	
+	/**
+	 * Writes the snapshot in the background, if one is kept and new
+	 * language files were parsed. Failing to do so only costs the next
+	 * start some time, so it is just logged.
+	 */
+	private static void saveSnapshot() {
+		CatalogSnapshot snap = snapshot;
+		if(snap != null) {
+			snap.save(snapshotWriter);
+		}
+	}
+	
+	/**
+	 * Parses the lines of a language file into the map. Lines
+	 * starting with # or // are comments, all other lines containing a
+	 * = are entries.
+	 * 
+	 * @param br
+	 *        the reader of the language file
+	 * @param map
+	 *        the map to store the translations in
+	 * @param log
+	 *        the logger to warn about duplicate entries
+	 * @throws UncheckedIOException
+	 *         if reading failed
+	 */
+	static void parse(BufferedReader br, Map<String, String> map, Logger log) {
+		br.lines().forEach((String line) -> {
+			if(!(line.startsWith("#") || line.startsWith("//"))) {
+				int i = line.indexOf('=');
+				int c = Math.min(line.indexOf('#'), line.indexOf("//"));
+				if(i >= 0) {
+					String key = line.substring(0, i).trim(), value = line
+							.substring(i + 1, c >= 0 ? c : line.length())
+							.trim();
+					
+					if(map.containsKey(key)) {
+						log.log(Level.WARNING,
+								"Found duplicate entry at " + key);
+					} else {
+						map.put(key, value);
+					}
+				}
+			}
+		});
+	}
+	
+	/**
+	 * @param fileName
+	 *        the name of the file inside the language directory
+	 * @return
+	 * 		the absolute resource name of the file
+	 */
+	private static String getLangResource(String fileName) {
+		StringBuilder fileString = new StringBuilder();
+		fileString.append("/lang/");
+		if(project != null) {
+			fileString.append(project + "/");
+		}
+		fileString.append(fileName);
+		return fileString.toString();
+	}
+	
+	/**
+	 * @param fileName
+	 *        the name of the file inside the language directory
+	 * @return
+	 * 		null if the file does not exist, else a stream of its
+	 *         contents. This works regardless of the file being
+	 *         packaged in a jar or not.
+	 */
+	@SuppressWarnings("null")
+	private static @Nullable InputStream getLangStream(String fileName) {
+		return projectClass.getResourceAsStream(getLangResource(fileName));
+	}
+	
+	/**
+	 * @param fileName
+	 *        the name of the file inside the language directory
+	 * @return
+	 * 		null if the file does not exist, else its URL
+	 */
+	@SuppressWarnings("null")
+	private static @Nullable URL getLangURL(String fileName) {
+		return projectClass.getResource(getLangResource(fileName));
+	}
+	
 	/**
 	 * @param loc
 	 *        The locale to find in the folder
@@ -274,16 +570,11 @@ public final class Translator {
 	 */
 	@SuppressWarnings("null")
 	private static @Nullable URI getLangURI(Locale loc) {
-		StringBuilder fileString = new StringBuilder();
-		fileString.append("/lang/");
-		if(project != null) {
-			fileString.append(project + "/");
-		}
-		fileString.append(loc.toString());
-		fileString.append(".lang");
-		
+		URL url = getLangURL(loc + ".lang");
+		if(url == null)
+			return null;
 		try {
-			return projectClass.getResource(fileString.toString()).toURI();
+			return url.toURI();
 		} catch(URISyntaxException ex) {
 			ex.printStackTrace();
 			return null;